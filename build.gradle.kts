@@ -29,6 +29,8 @@ dependencies {
     implementation("com.github.Altzenck:IOUtils:-SNAPSHOT")
     implementation("org.yaml:snakeyaml:2.2")
     implementation("com.google.code.findbugs:jsr305:3.0.2")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks {
@@ -48,6 +50,10 @@ tasks {
     build {
         dependsOn(shadowJar)
     }
+
+    test {
+        useJUnitPlatform()
+    }
 }
 
 publishing {
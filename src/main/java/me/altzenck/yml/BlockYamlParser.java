@@ -0,0 +1,419 @@
+package me.altzenck.yml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
+
+/**
+ * {@link YamlParser} specialized in the subset of yaml used by most configuration files, which it parses and dumps in a single pass
+ * without building an intermediate node tree:
+ * <ul>
+ *   <li>Block mappings whose keys are plain strings.</li>
+ *   <li>Block sequences of scalars or mappings.</li>
+ *   <li>Single-line plain scalars (strings, <code>int</code>/<code>long</code>, decimal <code>double</code>, booleans and nulls), single-quoted
+ *   scalars and double-quoted scalars without escapes.</li>
+ *   <li>Empty flow collections (<code>[]</code> and <code>{}</code>) and comments.</li>
+ * </ul>
+ * Any document (or object) outside this subset is handed to a fallback parser, {@link SnakeYamlParser} by default. This includes documents
+ * with characters that are not printable in yaml or that SnakeYAML treats as line breaks, so the fallback also reports or folds them as usual,
+ * and documents that reach the default code point or nesting depth limits of SnakeYAML, so the fallback decides whether they are rejected.
+ */
+public class BlockYamlParser implements YamlParser {
+
+	private static final Unsupported UNSUPPORTED = new Unsupported();
+
+	private static final int WIDTH = 80, MAX_KEY = 128;
+
+	private static final int CODE_POINT_LIMIT, NESTING_DEPTH_LIMIT;
+
+	static {
+		LoaderOptions options = new LoaderOptions();
+		CODE_POINT_LIMIT = options.getCodePointLimit();
+		NESTING_DEPTH_LIMIT = options.getNestingDepthLimit();
+	}
+
+	private final YamlParser fallback;
+
+	public BlockYamlParser() {
+		this(new SnakeYamlParser());
+	}
+
+	/**
+	 * @param fallback The parser used for documents outside the supported subset.
+	 */
+	public BlockYamlParser(@Nonnull YamlParser fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public Object load(@Nonnull Reader reader) {
+		String text = read(reader);
+		try {
+			return new Scanner(text).parse();
+		} catch (Unsupported e) {
+			return fallback.load(new StringReader(text));
+		}
+	}
+
+	@Override
+	public String dump(@Nullable Object data) {
+		if(data instanceof Map) {
+			try {
+				Map<?, ?> map = (Map<?, ?>) data;
+				if(map.isEmpty()) return "{}\n";
+				StringBuilder sb = new StringBuilder();
+				writeMap(sb, map, 0, false, Collections.newSetFromMap(new IdentityHashMap<>()));
+				return sb.toString();
+			} catch (Unsupported ignored) {}
+		}
+		return fallback.dump(data);
+	}
+
+	private static String read(Reader reader) {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[2048];
+		int i;
+		try {
+			while((i = reader.read(buffer, 0, buffer.length)) != -1)
+				sb.append(buffer, 0, i);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+
+	private static void writeMap(StringBuilder sb, Map<?, ?> map, int indent, boolean inline, Set<Object> seen) {
+		if(!seen.add(map)) throw UNSUPPORTED;
+		for(Map.Entry<?, ?> e: map.entrySet()) {
+			if(!(e.getKey() instanceof String)) throw UNSUPPORTED;
+			String key = (String) e.getKey();
+			if(key.length() >= MAX_KEY || !isPlain(key)) throw UNSUPPORTED;
+			if(!inline) indent(sb, indent);
+			inline = false;
+			sb.append(key).append(':');
+			Object value = e.getValue();
+			if(value instanceof Map && !((Map<?, ?>) value).isEmpty()) {
+				sb.append('\n');
+				writeMap(sb, (Map<?, ?>) value, indent + 2, false, seen);
+			} else if(value instanceof List && !((List<?>) value).isEmpty()) {
+				sb.append('\n');
+				writeList(sb, (List<?>) value, indent, seen);
+			} else {
+				sb.append(' ');
+				writeScalar(sb, value, indent + key.length() + 2, seen);
+			}
+		}
+	}
+
+	private static void writeList(StringBuilder sb, List<?> list, int indent, Set<Object> seen) {
+		if(!seen.add(list)) throw UNSUPPORTED;
+		for(Object value: list) {
+			indent(sb, indent);
+			sb.append("- ");
+			if(value instanceof Map && !((Map<?, ?>) value).isEmpty())
+				writeMap(sb, (Map<?, ?>) value, indent + 2, true, seen);
+			else if(value instanceof List && !((List<?>) value).isEmpty())
+				throw UNSUPPORTED;
+			else
+				writeScalar(sb, value, indent + 2, seen);
+		}
+	}
+
+	private static void writeScalar(StringBuilder sb, Object value, int column, Set<Object> seen) {
+		if(value == null)
+			sb.append("null");
+		else if(value instanceof Map || value instanceof List) {
+			if(!seen.add(value)) throw UNSUPPORTED;
+			sb.append((value instanceof Map)? "{}": "[]");
+		} else if(value instanceof Boolean || value instanceof Integer || value instanceof Long)
+			sb.append(value);
+		else if(value instanceof Double) {
+			String s = value.toString();
+			if(((Double) value).isInfinite() || ((Double) value).isNaN() || s.indexOf('E') >= 0) throw UNSUPPORTED;
+			sb.append(s);
+		} else if(value instanceof String) {
+			String s = (String) value;
+			// SnakeYAML folds plain scalars with spaces that go past the line width.
+			if(!isPlain(s) || (column + s.length() > WIDTH && s.indexOf(' ') >= 0)) throw UNSUPPORTED;
+			sb.append(s);
+		} else throw UNSUPPORTED;
+		sb.append('\n');
+	}
+
+	private static void indent(StringBuilder sb, int indent) {
+		for(int i = 0; i < indent; i++)
+			sb.append(' ');
+	}
+
+	/**
+	 * Checks if a string can be written as a plain scalar that is resolved back as a string, without needing to be quoted.
+	 */
+	private static boolean isPlain(String s) {
+		int len = s.length();
+		if(len == 0) return false;
+		char c = s.charAt(0);
+		if(!(Character.isLetter(c) || c == '_')) return false;
+		c = s.charAt(len - 1);
+		if(c == ' ' || c == ':') return false;
+		for(int i = 1; i < len; i++) {
+			c = s.charAt(i);
+			if(c < 0x20 || c == 0x7F || (c >= 0x80 && !Character.isLetterOrDigit(c))) return false;
+			if(c == '#' && s.charAt(i - 1) == ' ') return false;
+			if(c == ':' && s.charAt(i + 1) == ' ') return false;
+		}
+		return !isReserved(s);
+	}
+
+	private static boolean isReserved(String s) {
+		switch (s) {
+			case "null": case "Null": case "NULL":
+			case "true": case "True": case "TRUE":
+			case "false": case "False": case "FALSE":
+			case "yes": case "Yes": case "YES":
+			case "no": case "No": case "NO":
+			case "on": case "On": case "ON":
+			case "off": case "Off": case "OFF":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Thrown when a document or object falls outside the supported subset. It carries no stack trace, since it is only used to switch to the fallback.
+	 */
+	private static final class Unsupported extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private Unsupported() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final class Scanner {
+
+		private final List<String> lines = new ArrayList<>();
+		private int[] indents = new int[64];
+		private int pos;
+
+		private Scanner(String text) {
+			int start = 0, len = text.length();
+			if(len >= CODE_POINT_LIMIT) throw UNSUPPORTED;
+			for(int i = 0; i < len; i++)
+				if(!isPrintable(text.charAt(i))) throw UNSUPPORTED;
+			while(start < len) {
+				int end = text.indexOf('\n', start);
+				if(end < 0) end = len;
+				int stop = end;
+				if(stop > start && text.charAt(stop - 1) == '\r') stop--;
+				int i = start;
+				while(i < stop && text.charAt(i) == ' ') i++;
+				while(stop > i && text.charAt(stop - 1) == ' ') stop--;
+				if(i < stop && text.charAt(i) != '#') {
+					for(int j = i; j < stop; j++)
+						if(text.charAt(j) < 0x20) throw UNSUPPORTED;
+					if(lines.size() == indents.length) indents = Arrays.copyOf(indents, indents.length * 2);
+					indents[lines.size()] = i - start;
+					lines.add(text.substring(i, stop));
+				}
+				start = end + 1;
+			}
+		}
+
+		private Object parse() {
+			if(lines.isEmpty()) return null;
+			if(isItem(lines.get(0))) throw UNSUPPORTED;
+			Map<String, Object> map = parseMap(indents[0], 1);
+			if(pos != lines.size()) throw UNSUPPORTED;
+			return map;
+		}
+
+		/**
+		 * @param depth The nesting depth of the collection, starting at <code>1</code> for the document.
+		 */
+		private Map<String, Object> parseMap(int indent, int depth) {
+			if(depth >= NESTING_DEPTH_LIMIT) throw UNSUPPORTED;
+			Map<String, Object> map = new LinkedHashMap<>();
+			while(pos < lines.size()) {
+				int ind = indents[pos];
+				if(ind < indent) break;
+				String s = lines.get(pos);
+				if(ind > indent || isItem(s)) throw UNSUPPORTED;
+				int c = separator(s);
+				if(c <= 0 || c >= MAX_KEY) throw UNSUPPORTED;
+				String key = s.substring(0, c);
+				if(!isPlain(key)) throw UNSUPPORTED;
+				String rest = s.substring(c + 1).trim();
+				pos++;
+				map.put(key, (rest.isEmpty() || rest.charAt(0) == '#')? parseNested(indent, depth + 1): parseValue(rest));
+			}
+			return map;
+		}
+
+		private Object parseNested(int indent, int depth) {
+			if(pos == lines.size()) return null;
+			int ind = indents[pos];
+			if(isItem(lines.get(pos)))
+				return (ind >= indent)? parseList(ind, depth): null;
+			return (ind > indent)? parseMap(ind, depth): null;
+		}
+
+		private List<Object> parseList(int indent, int depth) {
+			if(depth >= NESTING_DEPTH_LIMIT) throw UNSUPPORTED;
+			List<Object> list = new ArrayList<>();
+			while(pos < lines.size()) {
+				int ind = indents[pos];
+				if(ind < indent) break;
+				String s = lines.get(pos);
+				if(ind > indent) throw UNSUPPORTED;
+				if(!isItem(s)) break;
+				String rest = s.substring(1).trim();
+				if(rest.isEmpty() || rest.charAt(0) == '#' || isItem(rest)) throw UNSUPPORTED;
+				char c = rest.charAt(0);
+				if(c != '\'' && c != '"' && separator(rest) >= 0) {
+					// A mapping starting on the item line, whose keys are aligned with the first one.
+					indents[pos] = ind + s.length() - rest.length();
+					lines.set(pos, rest);
+					list.add(parseMap(indents[pos], depth + 1));
+					continue;
+				}
+				pos++;
+				list.add(parseValue(rest));
+			}
+			return list;
+		}
+
+		private Object parseValue(String s) {
+			char c = s.charAt(0);
+			if(c == '\'') return parseSingleQuoted(s);
+			if(c == '"') return parseDoubleQuoted(s);
+			int h = s.indexOf(" #");
+			if(h >= 0) s = s.substring(0, h).trim();
+			if(s.equals("[]")) return new ArrayList<>();
+			if(s.equals("{}")) return new LinkedHashMap<>();
+			if(separator(s) >= 0) throw UNSUPPORTED;
+			return resolve(s);
+		}
+
+		private String parseSingleQuoted(String s) {
+			StringBuilder sb = new StringBuilder();
+			int i = 1, len = s.length();
+			while(true) {
+				if(i >= len) throw UNSUPPORTED;
+				char c = s.charAt(i);
+				if(c == '\'') {
+					if(i + 1 < len && s.charAt(i + 1) == '\'') {
+						sb.append('\'');
+						i += 2;
+						continue;
+					}
+					break;
+				}
+				sb.append(c);
+				i++;
+			}
+			checkTrailing(s, i + 1);
+			return sb.toString();
+		}
+
+		private String parseDoubleQuoted(String s) {
+			int end = s.indexOf('"', 1);
+			if(end < 0) throw UNSUPPORTED;
+			String value = s.substring(1, end);
+			if(value.indexOf('\\') >= 0) throw UNSUPPORTED;
+			checkTrailing(s, end + 1);
+			return value;
+		}
+
+		private void checkTrailing(String s, int from) {
+			if(from == s.length()) return;
+			if(s.charAt(from) != ' ' || s.substring(from).trim().charAt(0) != '#') throw UNSUPPORTED;
+		}
+
+		private Object resolve(String s) {
+			switch (s) {
+				case "~": case "null": case "Null": case "NULL":
+					return null;
+				case "true": case "True": case "TRUE":
+				case "yes": case "Yes": case "YES":
+				case "on": case "On": case "ON":
+					return Boolean.TRUE;
+				case "false": case "False": case "FALSE":
+				case "no": case "No": case "NO":
+				case "off": case "Off": case "OFF":
+					return Boolean.FALSE;
+			}
+			switch (numberKind(s)) {
+				case 1:
+					try {
+						return Integer.valueOf(s);
+					} catch (NumberFormatException ignored) {}
+					try {
+						return Long.valueOf(s);
+					} catch (NumberFormatException e) {
+						throw UNSUPPORTED;
+					}
+				case 2:
+					return Double.valueOf(s);
+			}
+			if(!isPlain(s)) throw UNSUPPORTED;
+			return s;
+		}
+
+		/**
+		 * @return <code>1</code> for a decimal integer, <code>2</code> for a decimal number with a fractional part, or <code>0</code> otherwise.
+		 */
+		private static int numberKind(String s) {
+			int len = s.length(), i = (s.charAt(0) == '-')? 1: 0;
+			if(i == len) return 0;
+			char c = s.charAt(i++);
+			if(c != '0') {
+				if(c < '1' || c > '9') return 0;
+				while(i < len && isDigit(s.charAt(i))) i++;
+			}
+			if(i == len) return 1;
+			if(s.charAt(i++) != '.' || i == len) return 0;
+			while(i < len)
+				if(!isDigit(s.charAt(i++))) return 0;
+			return 2;
+		}
+
+		/**
+		 * Checks if a character is printable in yaml and is not one of the line breaks <code>U+0085</code>, <code>U+2028</code> and <code>U+2029</code>.
+		 * Surrogates and the byte order mark are also rejected, even when valid.
+		 */
+		private static boolean isPrintable(char c) {
+			if(c < 0x20) return c == '\n' || c == '\r' || c == '\t';
+			if(c < 0x7F) return true;
+			if(c <= 0x9F || c == 0x2028 || c == 0x2029 || c == 0xFEFF) return false;
+			return c < 0xD800 || (c > 0xDFFF && c < 0xFFFE);
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+
+		private static boolean isItem(String s) {
+			return s.equals("-") || s.startsWith("- ");
+		}
+
+		/**
+		 * @return the index of the colon separating a key from its value, or <code>-1</code> if there is none.
+		 */
+		private static int separator(String s) {
+			int len = s.length();
+			for(int i = 0; i < len; i++) {
+				char c = s.charAt(i);
+				if(c == ':' && (i + 1 == len || s.charAt(i + 1) == ' ')) return i;
+				if(c == '#' && i > 0 && s.charAt(i - 1) == ' ') return -1;
+			}
+			return -1;
+		}
+	}
+}
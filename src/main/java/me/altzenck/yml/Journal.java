@@ -0,0 +1,342 @@
+package me.altzenck.yml;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Append-only change log kept next to a yaml file.<br></br>
+ * Each record is <code>[magic][body length][body crc32][body]</code>, with a body <code>[op][path length][path][value length][value]</code>, where the value is
+ * the yaml dump of the value of the path when it was saved. Replaying stops at the first record that is incomplete or fails these checks, and
+ * skips the records that are well framed but cannot be applied.
+ * Records only ever overwrite or remove whole key paths, so replaying them again on top of a file that already contains them yields the same result.
+ * A full rewrite of the file first appends a reset record holding the whole document, so replaying an older log over the rewritten file also
+ * ends in the current state.
+ */
+@SuppressWarnings("unchecked")
+class Journal {
+
+	static final String EXTENSION = ".journal";
+
+	private static final byte SET = 0, REMOVE = 1, RESET = 2, MAGIC = 'Y';
+
+	private static final int HEADER = 9, MIN_BODY = 5;
+
+	private static final Object ABSENT = new Object();
+
+	/**
+	 * Runs the compactions in the background. Replaced in tests to run them at a chosen point.
+	 */
+	static Executor compactor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "Yml-Journal-Compactor");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final File file, log;
+	private final long threshold;
+
+	private final Set<String> pending = new LinkedHashSet<>();
+
+	private boolean stale, compacting;
+	private int generation;
+
+	Journal(@Nonnull File file, long threshold, long length) throws IOException {
+		this.file = file.getAbsoluteFile();
+		this.log = logFile(this.file);
+		this.threshold = threshold;
+		if(log.exists() && log.length() != length)
+			try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.WRITE)) {
+				ch.truncate(length);
+			}
+	}
+
+	static File logFile(@Nonnull File file) {
+		return new File(file.getPath() + EXTENSION);
+	}
+
+	boolean isFor(@Nonnull File file) {
+		return this.file.equals(file.getAbsoluteFile());
+	}
+
+	/**
+	 * Marks a key path as changed. Its value is read and written to the log on the next {@link #flush(Map)}, so later in-place changes are also saved.
+	 * A path changed again is moved to the end, keeping the paths in the order of their last change.
+	 *
+	 * @param path The full key path that changed, or <code>null</code> to force a full rewrite on the next flush.
+	 */
+	synchronized void record(@Nullable String path) {
+		if(stale) return;
+		if(path == null) {
+			stale = true;
+			pending.clear();
+			return;
+		}
+		pending.remove(path);
+		pending.add(path);
+	}
+
+	/**
+	 * Appends the changed paths to the log, or rewrites the whole file if they could not be tracked.<br>
+	 * Once the log grows past the threshold, a compaction of <code>current</code> into the yaml file is scheduled in the background.
+	 */
+	synchronized void flush(@Nonnull Map<String, Object> current) {
+		if(!stale && pending.isEmpty()) return;
+		try {
+			byte[] records = null;
+			if(!stale) {
+				try {
+					records = encode(current);
+				} catch (RuntimeException e) {
+					stale = true;
+				}
+			}
+			if(stale) {
+				rewrite(current);
+				return;
+			}
+			long size = append(log, records, false);
+			pending.clear();
+			if(size < threshold || compacting) return;
+			compacting = true;
+			Map<String, Object> snapshot = (Map<String, Object>) copy(current);
+			int gen = generation;
+			compactor.execute(() -> compact(snapshot, size, gen));
+		} catch (IOException | RuntimeException e) {
+			stale = true;
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Encodes a record for each changed path, holding its current value or its removal if it no longer exists.
+	 */
+	private byte[] encode(Map<String, Object> current) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		YamlParser parser = Yml.getParser();
+		CRC32 crc = new CRC32();
+		for(String path: pending) {
+			Object value = find(current, path);
+			if(value == ABSENT)
+				writeRecord(out, crc, REMOVE, path, null);
+			else
+				writeRecord(out, crc, SET, path, parser.dump(value));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeRecord(DataOutputStream out, CRC32 crc, byte op, String path, @Nullable String value) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream bout = new DataOutputStream(body);
+		bout.writeByte(op);
+		writeBytes(bout, path.getBytes(StandardCharsets.UTF_8));
+		if(value != null) writeBytes(bout, value.getBytes(StandardCharsets.UTF_8));
+		byte[] b = body.toByteArray();
+		crc.reset();
+		crc.update(b);
+		out.writeByte(MAGIC);
+		out.writeInt(b.length);
+		out.writeInt((int) crc.getValue());
+		out.write(b);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	/**
+	 * @return the size of the log after appending the records.
+	 */
+	private static long append(File log, byte[] records, boolean force) throws IOException {
+		try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(records);
+			while(buffer.hasRemaining())
+				ch.write(buffer);
+			if(force) ch.force(true);
+			return ch.size();
+		}
+	}
+
+	/**
+	 * Durably appends a reset record holding the whole document to the log of <code>file</code>, if it has one.
+	 * Must be called before the file is rewritten with <code>yaml</code>, and the log deleted after.
+	 */
+	static void reset(@Nonnull File file, @Nonnull String yaml) throws IOException {
+		File log = logFile(file);
+		if(!log.exists()) return;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writeRecord(new DataOutputStream(bytes), new CRC32(), RESET, "", yaml);
+		append(log, bytes.toByteArray(), true);
+	}
+
+	private static Object find(Map<String, Object> map, String path) {
+		Object o = map;
+		for(String key: path.split(Section.SEPARATOR_RGX)) {
+			if(!(o instanceof Map) || !((Map<?, ?>) o).containsKey(key)) return ABSENT;
+			o = ((Map<?, ?>) o).get(key);
+		}
+		return o;
+	}
+
+	private void rewrite(Map<String, Object> current) throws IOException {
+		String yaml = dump(current);
+		reset(file, yaml);
+		write(yaml);
+		Files.deleteIfExists(log.toPath());
+		pending.clear();
+		stale = false;
+		generation++;
+	}
+
+	private void compact(Map<String, Object> snapshot, long mark, int gen) {
+		Path tmp = null;
+		try {
+			tmp = writeTemp(dump(snapshot));
+			synchronized (this) {
+				if(gen != generation) return;
+				Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				dropHead(mark);
+				generation++;
+			}
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			synchronized (this) {
+				compacting = false;
+			}
+			if(tmp != null) tmp.toFile().delete();
+		}
+	}
+
+	/**
+	 * Removes the records already contained in the yaml file, keeping those appended after the compaction started.
+	 */
+	private void dropHead(long mark) throws IOException {
+		Path tmp = tempFile(log);
+		try (FileChannel in = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+		     FileChannel os = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			long size = in.size(), pos = mark;
+			while(pos < size)
+				pos += in.transferTo(pos, size - pos, os);
+		}
+		Files.move(tmp, log.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void write(String yaml) throws IOException {
+		Files.move(writeTemp(yaml), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Path writeTemp(String yaml) throws IOException {
+		Path tmp = tempFile(file);
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(yaml.getBytes(StandardCharsets.UTF_8));
+			while(buffer.hasRemaining())
+				ch.write(buffer);
+			ch.force(true);
+		}
+		return tmp;
+	}
+
+	private static Path tempFile(File file) throws IOException {
+		return Files.createTempFile(file.getParentFile().toPath(), file.getName() + ".", ".tmp");
+	}
+
+	/**
+	 * Applies the records of the log of <code>file</code> to the specified section, up to the first one that is incomplete or corrupted.
+	 * Records that cannot be applied (for example, a value the parser rejects) are reported and skipped.
+	 *
+	 * @return the length in bytes of the well framed part of the log.
+	 * @throws IOException if the log cannot be read.
+	 */
+	static long replay(@Nonnull File file, @Nonnull Section section) throws IOException {
+		File log = logFile(file);
+		if(!log.exists()) return 0;
+		long length = 0, size = log.length();
+		YamlParser parser = Yml.getParser();
+		CRC32 crc = new CRC32();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)))) {
+			byte[] body;
+			while((body = readRecord(in, size - length, crc)) != null) {
+				try {
+					apply(new DataInputStream(new ByteArrayInputStream(body)), section, parser);
+				} catch (IOException | RuntimeException e) {
+					e.printStackTrace();
+				}
+				length += HEADER + body.length;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * @return the body of the next record, or <code>null</code> if the log ends there or the record is incomplete or corrupted.
+	 */
+	private static byte[] readRecord(DataInputStream in, long remaining, CRC32 crc) throws IOException {
+		try {
+			if(in.readByte() != MAGIC) return null;
+			int len = in.readInt(), sum = in.readInt();
+			if(len < MIN_BODY || len > remaining - HEADER) return null;
+			byte[] body = new byte[len];
+			in.readFully(body);
+			crc.reset();
+			crc.update(body);
+			return ((int) crc.getValue() == sum)? body: null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private static void apply(DataInputStream in, Section section, YamlParser parser) throws IOException {
+		byte op = in.readByte();
+		String path = readString(in);
+		if(op == REMOVE) {
+			section.remove(path);
+			return;
+		}
+		Object value = parser.load(new StringReader(readString(in)));
+		if(op != RESET) {
+			section.set(path, value);
+			return;
+		}
+		section.current.clear();
+		if(value instanceof Map) section.current.putAll((Map<String, Object>) value);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int len = in.readInt();
+		if(len < 0 || len > in.available()) throw new EOFException();
+		byte[] b = new byte[len];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static Object copy(Object o) {
+		if(o instanceof Map) {
+			Map<Object, Object> m = new LinkedHashMap<>();
+			for(Map.Entry<?, ?> e: ((Map<?, ?>) o).entrySet())
+				m.put(e.getKey(), copy(e.getValue()));
+			return m;
+		}
+		if(o instanceof List) {
+			List<Object> l = new ArrayList<>();
+			for(Object e: (List<?>) o)
+				l.add(copy(e));
+			return l;
+		}
+		return o;
+	}
+
+	private static String dump(Map<String, Object> current) {
+		return Yml.getParser().dump(current);
+	}
+}
@@ -14,6 +14,8 @@ public abstract class Section {
 
 	protected boolean isDefault;
 
+	private boolean detached;
+
 	protected ArrayList<String> cpath;
 	protected Map<String,Object> current;
 
@@ -65,17 +67,23 @@ public abstract class Section {
 	 */
 	public void addAllDefaults(boolean replace) {
 		if(isDefault) return;
-		aADSetter(current, root.def.getSection(cpath), replace);
+		aADSetter(current, root.def.getSection(cpath), replace, (root.tracksChanges())? "": null);
 	}
 
-	private void aADSetter(Map<String, Object> m, Map<String, Object> d, boolean replace) {
+	/**
+	 * @param path The path of <code>m</code>, or <code>null</code> if changes are not tracked.
+	 */
+	private void aADSetter(Map<String, Object> m, Map<String, Object> d, boolean replace, String path) {
 		for(String key: d.keySet()) {
 			Object dvalue = d.get(key);
+			String path0 = (path == null)? null: ((path.isEmpty())? "" : path + SEPARATOR) + key;
 			boolean c = m.containsKey(key), ins = dvalue instanceof Map;
-			if(!c || (replace && !ins))
+			if(!c || (replace && !ins)) {
 			  m.put(key, dvalue);
+			  if(path0 != null) changed(path0, dvalue, false);
+			}
 			try {
-			  aADSetter((Map<String, Object>) m.get(key), (Map<String, Object>) dvalue, replace);
+			  aADSetter((Map<String, Object>) m.get(key), (Map<String, Object>) dvalue, replace, path0);
 			} catch (ClassCastException ignored) {}
 		}
 	}
@@ -90,7 +98,11 @@ public abstract class Section {
 		ArrayList<String> s = parsePath(section);
 		Map<String, Object> current = getSection(s);
 		if(current == null) return null;
-		return new Section(current, s, root) {};
+		ArrayList<String> path = new ArrayList<>(cpath);
+		path.addAll(s);
+		Section sec = new Section(current, path, root) {};
+		sec.detached = detached;
+		return sec;
 	}
 
 	public List<Section> getListSection(String path) {
@@ -102,8 +114,11 @@ public abstract class Section {
 			return null;
 		}
 		if(maps == null) return Collections.emptyList();
-		for(Map<String, Object> map: maps)
-			sections.add(new Section(map, null, root) {});
+		for(Map<String, Object> map: maps) {
+			Section sec = new Section(map, null, root) {};
+			sec.detached = true;
+			sections.add(sec);
+		}
 		return sections;
 	}
 
@@ -401,7 +416,9 @@ public abstract class Section {
 		String key = sb.toString();
 		Object old;
 		if(!replace && (old = sec.get(key)) != null) return old;
-		return sec.put(key, value);
+		old = sec.put(key, value);
+		changed(path, value, false);
+		return old;
 	}
 
 	/**
@@ -416,7 +433,21 @@ public abstract class Section {
 		StringBuilder sb = new StringBuilder();
 		Map<String,Object> sec = secureKeyPathHandler(path, sb, false);
 		String key = sb.toString();
-		return (sec == null)? null: sec.remove(key);
+		if(sec == null || !sec.containsKey(key)) return null;
+		Object old = sec.remove(key);
+		changed(path, null, true);
+		return old;
+	}
+
+	/**
+	 * Reports that the value of a key path (starting from the current section) was modified in place, such as a list obtained through {@link #getList(String)}.<br></br>
+	 * Changes made through {@link #set(String, Object)} and {@link #remove(String)} are reported automatically.
+	 *
+	 * @param path The path to the key whose value was modified.
+	 */
+	public void markChanged(@Nonnull String path) {
+		if(isDefault) return;
+		changed(path, get(path), false);
 	}
 
 	/**
@@ -460,7 +491,10 @@ public abstract class Section {
 	 */
 	public Section createSection(String path) {
 		if(isDefault) return null;
-		createSection(parsePath(path), true);
+		ArrayList<String> s = parsePath(path);
+		boolean track = root.tracksChanges(), exists = track && getSection(s) != null;
+		Map<String, Object> sec = createSection(s, true);
+		if(track && !exists) changed(path, sec, false);
 		return getSection(path);
 	}
 
@@ -499,6 +533,15 @@ public abstract class Section {
 	  return String.join(SEPARATOR, cpath);
 	}
 
+	/**
+	 * Notifies the root of a change made from the current section.<br>
+	 * Changes made from sections without a known path (such as those obtained through {@link #getListSection(String)}) are reported with a <code>null</code> path.
+	 */
+	private void changed(String path, Object value, boolean removed) {
+		if(root == null || !root.tracksChanges()) return;
+		root.onChange((detached)? null: YmlUtils.stringJoinFromObject(SEPARATOR, cpath, path), value, removed);
+	}
+
 	private ArrayList<String> parsePath(String path) {
 		return new ArrayList<>(Arrays.asList(path.split(SEPARATOR_RGX)));
 	}
@@ -0,0 +1,31 @@
+package me.altzenck.yml;
+
+import java.io.Reader;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Default {@link YamlParser}, backed by SnakeYAML.<br>
+ * {@link Yaml} instances are not thread-safe, so one is kept per thread instead of creating one on each call.
+ */
+public class SnakeYamlParser implements YamlParser {
+
+	private final ThreadLocal<Yaml> yaml = ThreadLocal.withInitial(() -> {
+		DumperOptions options = new DumperOptions();
+		options.setIndent(2);
+		options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+		return new Yaml(options);
+	});
+
+	@Override
+	public Object load(@Nonnull Reader reader) {
+		return yaml.get().load(reader);
+	}
+
+	@Override
+	public String dump(@Nullable Object data) {
+		return yaml.get().dump(data);
+	}
+}
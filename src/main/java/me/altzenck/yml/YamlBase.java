@@ -2,6 +2,7 @@ package me.altzenck.yml;
 
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class YamlBase extends Section {
 
@@ -41,6 +42,24 @@ public class YamlBase extends Section {
 	    return def;
 	}
 
+	/**
+	 * Called after a value has been set or removed from any section of this instance, or marked as changed through {@link #markChanged(String)}.
+	 *
+	 * @param path The full key path that changed, or <code>null</code> if it cannot be determined.
+	 * @param value The new value of the key path, or <code>null</code> if it was removed.
+	 * @param removed Whether the key path was removed.
+	 */
+	protected void onChange(@Nullable String path, @Nullable Object value, boolean removed) {}
+
+	/**
+	 * Checks if this instance needs {@link #onChange(String, Object, boolean)} to be called, so that sections can skip building the key path otherwise.
+	 *
+	 * @return <code>true</code> if changes are tracked, <code>false</code> otherwise.
+	 */
+	protected boolean tracksChanges() {
+		return false;
+	}
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package me.altzenck.yml;
+
+import java.io.Reader;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Backend used by {@link Yml} to parse and dump yaml documents.
+ *
+ * @see Yml#setParser(YamlParser)
+ */
+public interface YamlParser {
+
+	/**
+	 * Parses a yaml document.
+	 *
+	 * @param reader The reader from which the document is read.
+	 * @return the parsed object (a {@link java.util.Map} for a section document), or <code>null</code> if the document is empty.
+	 */
+	Object load(@Nonnull Reader reader);
+
+	/**
+	 * Dumps an object as a yaml document in block style with an indentation of 2 spaces.
+	 *
+	 * @param data The object to dump.
+	 * @return the yaml representation of the object.
+	 */
+	String dump(@Nullable Object data);
+}
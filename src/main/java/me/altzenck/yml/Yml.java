@@ -3,8 +3,7 @@ package me.altzenck.yml;
 import java.io.*;
 import java.util.Map;
 import javax.annotation.Nonnull;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 import me.altzenck.io.IOUtils;
 
 /**
@@ -13,9 +12,27 @@ import me.altzenck.io.IOUtils;
  */
 public class Yml extends YamlBase{
 
+   private static volatile YamlParser parser = new SnakeYamlParser();
+
+   private Journal journal;
+
    @SuppressWarnings("unchecked")
    private Yml(InputStream is) {
-	   super((Map<String,Object>) new Yaml().load(is));
+	   super((Map<String,Object>) parser.load(new UnicodeReader(is)));
+   }
+
+   /**
+    * Sets the parser used to load and save all yaml files. By default, a {@link SnakeYamlParser} is used.
+    *
+    * @param parser The parser to use.
+    * @see BlockYamlParser
+    */
+   public static void setParser(@Nonnull YamlParser parser) {
+	   Yml.parser = parser;
+   }
+
+   public static YamlParser getParser() {
+	   return parser;
    }
 
    public void setDefaults(@Nonnull File file) {
@@ -30,33 +47,106 @@ public class Yml extends YamlBase{
 	   setDefaults(Yml.loadYaml(is));
    }
 
+   @Override
+   protected void onChange(String path, Object value, boolean removed) {
+	   if(journal != null) journal.record(path);
+   }
+
+   @Override
+   protected boolean tracksChanges() {
+	   return journal != null;
+   }
+
+   /**
+    * Saves this instance to the specified file.<br></br>
+    * If this instance was loaded in journal mode from the same file, only the changes made since the last save are appended to its journal.
+    *
+    * @param file The file to save to.
+    */
    public void save(@Nonnull File file) {
 	   file.getParentFile().mkdirs();
 	   if(file.isDirectory()) throw new IllegalArgumentException("The specified file is a directory!");
-	   DumperOptions options = new DumperOptions();
-	   options.setIndent(2);
-	   options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-	   if(file.exists()) file.delete();
+	   if(journal != null && journal.isFor(file)) {
+		   journal.flush(current);
+		   return;
+	   }
 	   try {
-		StringReader in = new StringReader(new Yaml(options).dump(current));
+		String yaml = parser.dump(current);
+		Journal.reset(file, yaml);
+		if(file.exists()) file.delete();
+		StringReader in = new StringReader(yaml);
 	    FileOutputStream os = new FileOutputStream(file);
 	    char[] buffer = new char[2048];
 	    int i = 0;
 		while((i = in.read(buffer, 0, buffer.length))  != -1) {
 			os.write(new String(buffer).getBytes(), 0, i);
 		}
+		File log = Journal.logFile(file);
+		if(log.exists()) {
+			os.getFD().sync();
+			log.delete();
+		}
 		os.close();
 	   } catch (IOException e) {
 		e.printStackTrace();
 	   }
    }
 
+   /**
+    * Loads a yaml file, applying on top of it the changes of its journal if there is one.
+    *
+    * @param file The file to load.
+    * @return the loaded instance, or an empty instance if the file could not be read.
+    */
    public static Yml loadYaml(@Nonnull File file) {
-	try {
-		return loadYaml(new FileInputStream(file));
+	return loadYaml(file, false, 0);
+   }
+
+   /**
+    * Loads a yaml file in journal mode.<br></br>
+    * Every {@link #set(String, Object)} and {@link #remove(String)} is then written by {@link #save(File)} as a record appended to a journal next to the file ({@code <file>.journal}), instead of rewriting the whole file.
+    * Once the journal grows past <code>compactThreshold</code> bytes, it is compacted into the yaml file in the background.<br></br>
+    * A record holds the value of its key path at the time of the save, so a map or list changed in place after being set is saved as long as
+    * it is changed before the next save. Any other in-place change, such as one to a list obtained through {@link #getList(String)}, must be
+    * reported with {@link #markChanged(String)} to be saved.
+    *
+    * @param file The file to load.
+    * @param compactThreshold The journal size in bytes from which it is compacted.
+    * @return the loaded instance, or an empty instance if the file could not be read.
+    * @throws UncheckedIOException if the journal exists but could not be read.
+    */
+   public static Yml loadYaml(@Nonnull File file, long compactThreshold) {
+	return loadYaml(file, true, compactThreshold);
+   }
+
+   /**
+    * Loads a yaml file and replays its journal on top of it.
+    *
+    * @param journal Whether to attach the journal to the loaded instance.
+    */
+   private static Yml loadYaml(@Nonnull File file, boolean journal, long compactThreshold) {
+	Yml yml;
+	try (InputStream is = new FileInputStream(file)) {
+		yml = loadYaml(is);
 	} catch (Exception e) {
+		yml = loadYaml(new ByteArrayInputStream(new byte[0]));
+	}
+	long length;
+	try {
+		length = Journal.replay(file, yml);
+	} catch (IOException e) {
+		if(journal) throw new UncheckedIOException(e);
+		e.printStackTrace();
 		return loadYaml(new ByteArrayInputStream(new byte[0]));
 	}
+	if(journal) {
+		try {
+			yml.journal = new Journal(file, compactThreshold, length);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	return yml;
    }
 
    public static Yml loadYaml(@Nonnull Reader reader) {
@@ -0,0 +1,138 @@
+package me.altzenck.yml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link BlockYamlParser} against {@link SnakeYamlParser}: both must parse and dump to the same result, whether the fast path or the
+ * fallback is taken.
+ */
+public class BlockYamlParserTest {
+
+	private static final String[] WORDS = {
+		"a", "b c", "Key_1", "it's", "a:b", "http://x", "a#b", "ñandú", "a, b ]", "[x]", "x: y", "a #b", "", "  s", "t ",
+		"yes", "On", "null", "~", "1", "-1", "01", "1.5", "0.25", "1e3", "1_000", "12345678901", "2001-12-14", "x\u0085y", "\uD83D\uDE00",
+		"long text with many words that goes on and on and on past the eighty column limit for sure"
+	};
+
+	private static final String[] DOCUMENTS = {
+		"", "# comment\n", "a: 1\n", "  a: 1\n  b:\n    c: d\n", "a: 1\na: 2\nb: 3\n", "a:\r\n  b: c\r\n",
+		"a: 1 # c\nb:   'x '' y'  # z\nc: \"q # r\"\n", "a: ~\nb:\nc: Null\nd: off\ne: -0\nf: 2147483648\ng: -1.50\n",
+		"a:\n  - 1\n  -   x: 1\n      y: 2\n", "a:\n- b:\n- c\n", "l:\n- a:\n  - 1\n  b: {}\n- []\n",
+		"a: b\n  c\n", "a: |\n  x\n", "a: >\n  x\n", "a: &x 1\nb: *x\n", "a: !!str 1\n", "---\na: 1\n", "%YAML 1.1\n---\na: 1\n",
+		"a: [1, 2]\n", "a: {b: 1}\n", "? a\n: b\n", "<<: {a: 1}\n", "a:\tb\n", "l:\n- - 1\n", "\"k\": v\n", "'k': v\n", "1: v\n", "yes: v\n",
+		"a: 0x1F\n", "a: 0o17\n", "a: 1_000\n", "a: 1:30\n", "a: 2001-01-01\n", "a: .inf\n", "a: .NaN\n", "a: 1e3\n", "a: +1\n",
+		"a: 9999999999999999999999\n", "a: \"x\\ny\"\n", "a: 'x\u0085y'\n", "a: \"x\u2028y\"\n", "a: x\u0080\n", "a: '\uFFFE'\n",
+		"a: '\uD800'\n", "# \u0081\na: 1\n", "a: '\uD83D\uDE00'\n", "a: x # \tc\n", "\uFEFFa: 1\n",
+		"- 1\n", "a\n", "a: b: c\n", "a: 'x': 1\n", "a: 'unterminated\n", "a: -\n", "a:\n b: 1\n c: 2\n  d: 3\n"
+	};
+
+	private final YamlParser snake = new SnakeYamlParser(), block = new BlockYamlParser();
+
+	@Test
+	public void randomTrees() {
+		Random random = new Random(42);
+		for(int i = 0; i < 5000; i++) {
+			Map<String, Object> map = map(random, 0);
+			String yaml = snake.dump(map);
+			assertEquals(yaml, block.dump(map));
+			assertEquals(snake.load(new StringReader(yaml)), block.load(new StringReader(yaml)), yaml);
+		}
+	}
+
+	@Test
+	public void documents() {
+		for(String yaml: DOCUMENTS)
+			assertEquals(load(snake, yaml), load(block, yaml), yaml);
+	}
+
+	@Test
+	public void sharedReferences() {
+		List<Object> list = new ArrayList<>(Arrays.asList("a", "b"));
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("x", list);
+		map.put("y", list);
+		assertEquals(snake.dump(map), block.dump(map));
+	}
+
+	@Test
+	public void largeDocument() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for(int i = 0; i < 2000; i++) {
+			Map<String, Object> player = new LinkedHashMap<>();
+			player.put("name", "player" + i);
+			player.put("level", i);
+			player.put("ratio", i / 8.0);
+			player.put("enabled", i % 2 == 0);
+			player.put("tags", Arrays.asList("alpha", "beta"));
+			map.put("p" + i, player);
+		}
+		String yaml = snake.dump(map);
+		assertEquals(yaml, block.dump(map));
+		assertEquals(map, block.load(new StringReader(yaml)));
+	}
+
+	@Test
+	public void loaderLimits() {
+		for(int depth = 47; depth <= 52; depth++) {
+			StringBuilder maps = new StringBuilder(), lists = new StringBuilder();
+			for(int i = 0; i < depth; i++) {
+				String indent = String.join("", Collections.nCopies(i, "  "));
+				maps.append(indent).append("k:\n");
+				lists.append(indent).append("- k:\n");
+			}
+			String indent = String.join("", Collections.nCopies(depth, "  "));
+			maps.append(indent).append("v: 1\n");
+			lists.append(indent).append("v: 1\n");
+			assertEquals(load(snake, maps.toString()), load(block, maps.toString()), "maps " + depth);
+			String yaml = "l:\n" + lists;
+			assertEquals(load(snake, yaml), load(block, yaml), "lists " + depth);
+		}
+		StringBuilder large = new StringBuilder();
+		for(int i = 0; large.length() < 3200000; i++)
+			large.append("key").append(i).append(": some value\n");
+		String yaml = large.toString();
+		assertEquals(load(snake, yaml), load(block, yaml));
+	}
+
+	/**
+	 * @return the parsed object, or the class of the exception thrown while parsing.
+	 */
+	private static Object load(YamlParser parser, String yaml) {
+		try {
+			return parser.load(new StringReader(yaml));
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+	private static Map<String, Object> map(Random random, int depth) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		int n = random.nextInt(5);
+		for(int i = 0; i < n; i++)
+			map.put((random.nextInt(8) == 0)? WORDS[random.nextInt(WORDS.length)]: "k" + random.nextInt(20), value(random, depth));
+		return map;
+	}
+
+	private static Object value(Random random, int depth) {
+		switch (random.nextInt((depth > 3)? 6: 9)) {
+			case 0: return null;
+			case 1: return random.nextInt();
+			case 2: return random.nextLong();
+			case 3: return random.nextBoolean();
+			case 4: return random.nextInt(100) / 4.0;
+			case 5: return WORDS[random.nextInt(WORDS.length)];
+			case 6: return map(random, depth + 1);
+			case 7:
+				List<Object> list = new ArrayList<>();
+				int n = random.nextInt(4);
+				for(int i = 0; i < n; i++)
+					list.add((random.nextInt(3) == 0)? map(random, depth + 1): value(random, depth + 2));
+				return list;
+			default: return new LinkedHashMap<>();
+		}
+	}
+}
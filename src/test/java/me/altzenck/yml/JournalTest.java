@@ -0,0 +1,214 @@
+package me.altzenck.yml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the journal mode of {@link Yml}: what is appended on each save, how the log is replayed and how it is folded back into the yaml file.
+ */
+public class JournalTest {
+
+	private static final long NO_COMPACTION = Long.MAX_VALUE;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void setAndRemove() throws IOException {
+		File file = file("a:\n  b: 1\nc: 2\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("a.d", 3);
+		yml.set("e.f", "x");
+		yml.remove("c");
+		yml.save(file);
+		assertEquals("a:\n  b: 1\nc: 2\n", read(file));
+		assertTrue(log(file).length() > 0);
+
+		Yml loaded = Yml.loadYaml(file);
+		assertEquals(1, loaded.get("a.b"));
+		assertEquals(3, loaded.get("a.d"));
+		assertEquals("x", loaded.get("e.f"));
+		assertNull(loaded.get("c"));
+	}
+
+	@Test
+	public void saveWithoutChanges() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.get("a");
+		yml.save(file);
+		assertFalse(log(file).exists());
+	}
+
+	@Test
+	public void inPlaceListEdit() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		List<Object> list = new ArrayList<>();
+		yml.set("list", list);
+		list.add("x");
+		yml.save(file);
+		assertEquals(Arrays.asList("x"), Yml.loadYaml(file).getList("list"));
+
+		yml.getList("list").add("y");
+		yml.markChanged("list");
+		yml.save(file);
+		assertEquals(Arrays.asList("x", "y"), Yml.loadYaml(file).getList("list"));
+	}
+
+	@Test
+	public void tornTail() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("b", 2);
+		yml.save(file);
+		long length = log(file).length();
+		byte[] record = Files.readAllBytes(log(file).toPath());
+		Files.write(log(file).toPath(), Arrays.copyOf(record, record.length - 3), StandardOpenOption.APPEND);
+
+		Yml loaded = Yml.loadYaml(file, NO_COMPACTION);
+		assertEquals(2, loaded.get("b"));
+		assertEquals(length, log(file).length());
+
+		Files.write(log(file).toPath(), new byte[16], StandardOpenOption.APPEND);
+		loaded = Yml.loadYaml(file, NO_COMPACTION);
+		assertEquals(2, loaded.get("b"));
+		assertEquals(length, log(file).length());
+	}
+
+	@Test
+	public void corruptedChecksum() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("b", 2);
+		yml.save(file);
+		long length = log(file).length();
+		yml.set("c", 3);
+		yml.save(file);
+		byte[] log = Files.readAllBytes(log(file).toPath());
+		log[log.length - 2] ^= 1;
+		Files.write(log(file).toPath(), log);
+
+		Yml loaded = Yml.loadYaml(file, NO_COMPACTION);
+		assertEquals(2, loaded.get("b"));
+		assertNull(loaded.get("c"));
+		assertEquals(length, log(file).length());
+	}
+
+	@Test
+	public void unloadableRecordIsSkipped() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("bean", new Bean());
+		yml.save(file);
+		yml.set("b", 2);
+		yml.save(file);
+		long length = log(file).length();
+
+		Yml loaded = Yml.loadYaml(file, NO_COMPACTION);
+		assertNull(loaded.get("bean"));
+		assertEquals(2, loaded.get("b"));
+		assertEquals(length, log(file).length());
+	}
+
+	@Test
+	public void untrackedChangeRewritesFile() throws IOException {
+		File file = file("a: 1\nl:\n- x: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("a", 2);
+		yml.getListSection("l").get(0).set("x", 2);
+		yml.save(file);
+		assertFalse(log(file).exists());
+
+		Map<String, Object> saved = parse(file);
+		assertEquals(2, saved.get("a"));
+		assertEquals(Arrays.asList(Collections.singletonMap("x", 2)), saved.get("l"));
+	}
+
+	@Test
+	public void resetRecordWinsOverOlderRecords() throws IOException {
+		File file = file("a: 1\n");
+		Yml yml = Yml.loadYaml(file, NO_COMPACTION);
+		yml.set("a", 2);
+		yml.set("b", 1);
+		yml.save(file);
+
+		// A rewrite interrupted after the file was replaced, but before the log was deleted.
+		yml.set("a", 3);
+		yml.remove("b");
+		String yaml = Yml.getParser().dump(yml.current);
+		Journal.reset(file, yaml);
+		Files.write(file.toPath(), yaml.getBytes(StandardCharsets.UTF_8));
+
+		Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("a", 3);
+		assertEquals(expected, Yml.loadYaml(file).current);
+	}
+
+	@Test
+	public void compactionKeepsLaterRecords() throws IOException {
+		List<Runnable> tasks = new ArrayList<>();
+		Executor compactor = Journal.compactor;
+		Journal.compactor = tasks::add;
+		try {
+			File file = file("a: 0\n");
+			Yml yml = Yml.loadYaml(file, 1);
+			yml.set("a", 1);
+			yml.save(file);
+			assertEquals(1, tasks.size());
+			yml.set("b", 2);
+			yml.save(file);
+			assertEquals(1, tasks.size());
+
+			tasks.get(0).run();
+			Map<String, Object> compacted = parse(file);
+			assertEquals(1, compacted.get("a"));
+			assertFalse(compacted.containsKey("b"));
+			assertTrue(log(file).length() > 0);
+
+			Yml loaded = Yml.loadYaml(file);
+			assertEquals(1, loaded.get("a"));
+			assertEquals(2, loaded.get("b"));
+		} finally {
+			Journal.compactor = compactor;
+		}
+	}
+
+	private File file(String yaml) throws IOException {
+		File file = dir.resolve("data.yml").toFile();
+		Files.write(file.toPath(), yaml.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static File log(File file) {
+		return Journal.logFile(file);
+	}
+
+	private static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> parse(File file) throws IOException {
+		return (Map<String, Object>) new SnakeYamlParser().load(new StringReader(read(file)));
+	}
+
+	public static class Bean {
+
+		public int x = 1;
+	}
+}